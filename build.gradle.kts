@@ -38,8 +38,10 @@ dependencies {
     annotationProcessor("org.projectlombok:lombok")
 
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.springframework.kafka:spring-kafka")
+    implementation("io.projectreactor.kafka:reactor-kafka:1.2.2.RELEASE")
     implementation("org.springframework.cloud:spring-cloud-starter-sleuth:2.2.5.RELEASE")
 
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.6.2")
@@ -97,6 +99,52 @@ task<Test>("integrationTest") {
 
 }
 
+task<JavaExec>("startupBenchmark") {
+    group = "verification"
+    description = "Measures the time from container start until the application is healthy and serving requests"
+
+    dependsOn("buildImage")
+    finalizedBy("stopServices")
+
+    workingDir("$projectDir")
+    classpath = sourceSets["integrationTest"].runtimeClasspath
+    main = "se.martin.eventsource.benchmark.StartupBenchmark"
+
+    project.findProperty("eventsource.host")?.let { systemProperty("eventsource.host", it) }
+    project.findProperty("kafka.host")?.let { systemProperty("kafka.host", it) }
+    project.findProperty("benchmark.iterations")?.let { systemProperty("benchmark.iterations", it) }
+}
+
+task<JavaExec>("publishBenchmark") {
+    group = "verification"
+    description = "Measures throughput, size and consumer CPU of the records published by the application"
+
+    dependsOn("startServices")
+    finalizedBy("stopServices")
+
+    classpath = sourceSets["integrationTest"].runtimeClasspath
+    main = "se.martin.eventsource.benchmark.PublishBenchmark"
+
+    project.findProperty("eventsource.host")?.let { systemProperty("eventsource.host", it) }
+    project.findProperty("kafka.host")?.let { systemProperty("kafka.host", it) }
+    project.findProperty("benchmark.requests")?.let { systemProperty("benchmark.requests", it) }
+}
+
+task<JavaExec>("loadBenchmark") {
+    group = "verification"
+    description = "Measures latency and threads used by the application under a fixed load"
+
+    dependsOn("startServices")
+    finalizedBy("stopServices")
+
+    classpath = sourceSets["integrationTest"].runtimeClasspath
+    main = "se.martin.eventsource.benchmark.LoadBenchmark"
+
+    project.findProperty("eventsource.host")?.let { systemProperty("eventsource.host", it) }
+    project.findProperty("benchmark.requests")?.let { systemProperty("benchmark.requests", it) }
+    project.findProperty("benchmark.concurrency")?.let { systemProperty("benchmark.concurrency", it) }
+}
+
 task<Exec>("buildImage") {
     group = "build"
     description = "Builds a docker inage containing the application"
@@ -117,6 +165,9 @@ task<Exec>("startServices") {
     workingDir("$projectDir")
 
     project.findProperty("kafka.host")?.let { environment.set("LISTENER_HOST", it) }
+    project.findProperty("eventsource.envelope")?.let { environment.set("EVENTSOURCE_PUBLISH_ENVELOPE", it) }
+    project.findProperty("eventsource.stack")?.let { environment.set("EVENTSOURCE_STACK", it) }
+    project.findProperty("eventsource.faststart")?.let { environment.set("EVENTSOURCE_FASTSTART", it) }
 
     commandLine("docker-compose", "up", "-d")
 }
@@ -0,0 +1,77 @@
+package se.martin.eventsource.availability;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+// Resolves where the eventsource application and the broker are running and waits for the application to be
+// healthy. Shared by the integration tests and the benchmarks.
+@Slf4j
+public class Services {
+
+    private static final String DEFAULT_HOST = "localhost:8097";
+
+    private static final String DEFAULT_BROKER = "localhost:19092";
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private Services() {
+    }
+
+    public static String host() {
+        return Optional.ofNullable(System.getProperty("eventsource.host")).orElse(DEFAULT_HOST);
+    }
+
+    public static String broker() {
+        return Optional.ofNullable(System.getProperty("kafka.host")).orElse(DEFAULT_BROKER);
+    }
+
+    public static int intProperty(String name, int defaultValue) {
+        return Optional.ofNullable(System.getProperty(name))
+                .map(Integer::valueOf)
+                .orElse(defaultValue);
+    }
+
+    public static URI uri(String path) {
+        return URI.create("http://" + host() + path);
+    }
+
+    // Polls the healthcheck endpoint until it reports UP. Returns false if it has not done so by the stop time.
+    public static boolean awaitHealthy(Instant stopTime, Duration pollInterval) {
+        var uri = uri("/actuator/health");
+        log.info("Querying healthcheck URI " + uri);
+
+        var request = HttpRequest.newBuilder()
+                .uri(uri)
+                .GET()
+                .build();
+
+        while (stopTime.isAfter(Instant.now())) {
+            try {
+                log.debug("Pinging healthcheck endpoint");
+                try {
+                    HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.body().contains("UP")) {
+                        return true;
+                    }
+                } catch (Exception e) {
+                    // do nothing
+                }
+                // Block
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                // do nothing
+            }
+        }
+        return false;
+    }
+
+}
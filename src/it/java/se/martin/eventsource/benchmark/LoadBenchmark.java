@@ -0,0 +1,113 @@
+package se.martin.eventsource.benchmark;
+
+import com.jayway.jsonpath.JsonPath;
+import lombok.extern.slf4j.Slf4j;
+import se.martin.eventsource.availability.Services;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends a fixed number of requests to the "do something" endpoint from a fixed number of concurrent clients and
+// reports the latency percentiles together with the number of threads used by the application. Run it once against
+// each stack to compare them.
+@Slf4j
+public class LoadBenchmark {
+
+    private static final int DEFAULT_REQUESTS = 2000;
+
+    private static final int DEFAULT_CONCURRENCY = 50;
+
+    private static final Duration MAX_STARTUP_TIME = Duration.ofSeconds(60);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        var requests = Services.intProperty("benchmark.requests", DEFAULT_REQUESTS);
+        var concurrency = Services.intProperty("benchmark.concurrency", DEFAULT_CONCURRENCY);
+
+        new LoadBenchmark().run(requests, concurrency);
+    }
+
+    private void run(int requests, int concurrency) throws InterruptedException, IOException {
+        if (!Services.awaitHealthy(Instant.now().plus(MAX_STARTUP_TIME), Duration.ofSeconds(1))) {
+            throw new IllegalStateException("Unable to get healthy indicator from application healthcheck.");
+        }
+
+        var threadsBefore = metric("jvm.threads.live");
+
+        var request = HttpRequest.newBuilder()
+                .uri(Services.uri("/dosomething"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        log.info(String.format("Sending %s requests from %s concurrent clients...", requests, concurrency));
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        var failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        var start = Instant.now();
+        for (int i = 0; i < requests; i++) {
+            executor.submit(() -> {
+                var requestStart = System.nanoTime();
+                try {
+                    var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        failed.incrementAndGet();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    failed.incrementAndGet();
+                }
+                latencies.add(System.nanoTime() - requestStart);
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        var elapsed = Duration.between(start, Instant.now()).toMillis();
+
+        var threadsAfter = metric("jvm.threads.live");
+        var threadsPeak = metric("jvm.threads.peak");
+
+        var sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        log.info(String.format("Completed %s requests (%s failed) in %s ms, %.0f requests/s",
+                requests,
+                failed.get(),
+                elapsed,
+                requests * 1000.0 / Math.max(elapsed, 1)));
+        log.info(String.format("Latency (ms): p50 %.1f, p99 %.1f, max %.1f",
+                percentile(sorted, 50),
+                percentile(sorted, 99),
+                percentile(sorted, 100)));
+        log.info(String.format("Application threads: %.0f before, %.0f after, %.0f peak",
+                threadsBefore,
+                threadsAfter,
+                threadsPeak));
+    }
+
+    private double metric(String name) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder()
+                .uri(Services.uri("/actuator/metrics/" + name))
+                .GET()
+                .build();
+        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        return JsonPath.parse(response.body()).read("$['measurements'][0]['value']", Double.class);
+    }
+
+    private static double percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        var index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,201 @@
+package se.martin.eventsource.benchmark;
+
+import com.jayway.jsonpath.JsonPath;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import se.martin.eventsource.availability.Services;
+import se.martin.eventsource.store.EnvelopeUnpacker;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Sends a number of requests to the "do something" endpoint and then reads back everything that was published
+// as a result, waiting until the events of all requests have been published. Reports the number of records and
+// events, the throughput when consuming them, the number of bytes per event and the consumer CPU time per event.
+// Run it once against each publishing mode to compare them. The counts include the events published by the
+// NoiseMaker.
+@Slf4j
+public class PublishBenchmark {
+
+    private static final String TOPIC = "eventsource";
+
+    private static final int DEFAULT_REQUESTS = 1000;
+
+    private static final Duration MAX_STARTUP_TIME = Duration.ofSeconds(60);
+
+    private static final Duration POLLING_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final int EVENTS_PER_REQUEST = 5;
+
+    // Sequence id of the events published by the NoiseMaker
+    private static final int NOISE_SEQUENCE_ID = -1;
+
+    // Time allowed for the asynchronous publishing to finish after the last response
+    private static final Duration MAX_PUBLISH_TIME = Duration.ofMinutes(5);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    public static void main(String[] args) throws InterruptedException {
+        var requests = Services.intProperty("benchmark.requests", DEFAULT_REQUESTS);
+
+        new PublishBenchmark().run(requests);
+    }
+
+    private void run(int requests) throws InterruptedException {
+        if (!Services.awaitHealthy(Instant.now().plus(MAX_STARTUP_TIME), Duration.ofSeconds(1))) {
+            throw new IllegalStateException("Unable to get healthy indicator from application healthcheck.");
+        }
+
+        var props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, Services.broker());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        // The topic is created by the application
+        props.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, "false");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+
+        try (var consumer = new KafkaConsumer<String, String>(props)) {
+            var partitions = awaitPartitions(consumer);
+            consumer.assign(partitions);
+            var startOffsets = consumer.endOffsets(partitions);
+
+            sendRequests(requests);
+
+            // Read everything once to find where the events of the requests end, then measure a second read
+            startOffsets.forEach(consumer::seek);
+            var endOffsets = awaitPublished(consumer, requests * EVENTS_PER_REQUEST);
+            startOffsets.forEach(consumer::seek);
+
+            long records = 0;
+            long events = 0;
+            long envelopes = 0;
+            long bytes = 0;
+
+            var threadMXBean = ManagementFactory.getThreadMXBean();
+            var startCpuTime = threadMXBean.getCurrentThreadCpuTime();
+            var start = Instant.now();
+
+            while (!isConsumed(consumer, endOffsets)) {
+                for (ConsumerRecord<String, String> record : consumer.poll(POLLING_TIMEOUT)) {
+                    records++;
+                    bytes += recordSize(record);
+                    if (EnvelopeUnpacker.isEnvelope(record)) {
+                        envelopes++;
+                    }
+                    // Parse each record once and read a field from every event it contains
+                    for (Object event : EnvelopeUnpacker.events(record)) {
+                        JsonPath.<String>read(event, "$['metadata']['traceId']");
+                        events++;
+                    }
+                }
+            }
+
+            var elapsed = Duration.between(start, Instant.now()).toMillis();
+            var cpuTime = threadMXBean.getCurrentThreadCpuTime() - startCpuTime;
+
+            log.info(String.format("Consumed %s records (%s envelopes) containing %s events in %s ms",
+                    records,
+                    envelopes,
+                    events,
+                    elapsed));
+            log.info(String.format("Records/s: %.0f, events/s: %.0f",
+                    records * 1000.0 / Math.max(elapsed, 1),
+                    events * 1000.0 / Math.max(elapsed, 1)));
+            log.info(String.format("Bytes/event: %.0f", (double) bytes / Math.max(events, 1)));
+            log.info(String.format("Consumer CPU: %s ms, %.1f us/event",
+                    cpuTime / 1_000_000,
+                    cpuTime / 1000.0 / Math.max(events, 1)));
+        }
+    }
+
+    // Waits for the topic to exist, as it is created by the application after startup
+    private List<TopicPartition> awaitPartitions(KafkaConsumer<String, String> consumer) throws InterruptedException {
+        var stopTime = Instant.now().plus(MAX_STARTUP_TIME);
+        while (stopTime.isAfter(Instant.now())) {
+            var partitions = consumer.partitionsFor(TOPIC);
+            if (partitions != null && !partitions.isEmpty()) {
+                return partitions.stream()
+                        .map(p -> new TopicPartition(p.topic(), p.partition()))
+                        .collect(Collectors.toList());
+            }
+            log.info("Waiting for topic " + TOPIC);
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("Topic " + TOPIC + " was not created within " + MAX_STARTUP_TIME);
+    }
+
+    private void sendRequests(int requests) {
+        var request = HttpRequest.newBuilder()
+                .uri(Services.uri("/dosomething"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        log.info("Sending " + requests + " requests...");
+        var responses = IntStream.range(0, requests)
+                .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding()))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+
+        var failed = responses.stream()
+                .map(CompletableFuture::join)
+                .filter(r -> r.statusCode() != 200)
+                .count();
+        if (failed > 0) {
+            log.warn(failed + " requests failed");
+        }
+    }
+
+    // Consumes until the expected number of events from requests, not counting the noise, has been read.
+    // Returns the positions reached.
+    private static Map<TopicPartition, Long> awaitPublished(KafkaConsumer<String, String> consumer, long expectedEvents) {
+        long events = 0;
+        var stopTime = Instant.now().plus(MAX_PUBLISH_TIME);
+        while (events < expectedEvents && stopTime.isAfter(Instant.now())) {
+            for (ConsumerRecord<String, String> record : consumer.poll(POLLING_TIMEOUT)) {
+                for (Object event : EnvelopeUnpacker.events(record)) {
+                    if (JsonPath.<Integer>read(event, "$['sequenceId']") != NOISE_SEQUENCE_ID) {
+                        events++;
+                    }
+                }
+            }
+        }
+
+        if (events < expectedEvents) {
+            log.warn(String.format("Only %s of %s events were published within %s, the results cover fewer requests",
+                    events,
+                    expectedEvents,
+                    MAX_PUBLISH_TIME));
+        }
+
+        return consumer.assignment().stream()
+                .collect(Collectors.toMap(p -> p, consumer::position));
+    }
+
+    private static boolean isConsumed(KafkaConsumer<String, String> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream()
+                .allMatch(e -> consumer.position(e.getKey()) >= e.getValue());
+    }
+
+    private static long recordSize(ConsumerRecord<String, String> record) {
+        long size = Math.max(record.serializedKeySize(), 0) + Math.max(record.serializedValueSize(), 0);
+        for (Header header : record.headers()) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,206 @@
+package se.martin.eventsource.benchmark;
+
+import com.jayway.jsonpath.JsonPath;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import se.martin.eventsource.availability.Services;
+import se.martin.eventsource.store.EnvelopeUnpacker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Restarts the eventsource container a number of times, first without and then with fast start, and measures the
+// time from the container being started until the healthcheck reports UP and until the first request to the
+// "do something" endpoint whose five events have been read back from the topic.
+// The broker is started, and waited for, once before the first iteration and left running.
+// Both modes create the topics after startup and report UP once they exist, so "without fast start" only turns off
+// the shared classes cache and lazy initialization. It is not the version that created topics during startup.
+@Slf4j
+public class StartupBenchmark {
+
+    private static final String TOPIC = "eventsource";
+
+    private static final String TRACE_ID_HEADER = "x-b3-traceid";
+
+    private static final int EVENTS_PER_REQUEST = 5;
+
+    private static final int DEFAULT_ITERATIONS = 5;
+
+    private static final Duration MAX_STARTUP_TIME = Duration.ofSeconds(120);
+
+    private static final Duration POLLING_TIMEOUT = Duration.ofMillis(200);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private final URI doSomethingUri = Services.uri("/dosomething");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var iterations = Services.intProperty("benchmark.iterations", DEFAULT_ITERATIONS);
+
+        new StartupBenchmark().run(iterations);
+    }
+
+    private void run(int iterations) throws IOException, InterruptedException {
+        log.info("Starting broker...");
+        dockerCompose(Map.of(), "up", "-d", "broker");
+
+        try (var consumer = createConsumer()) {
+            awaitBroker(consumer);
+
+            var results = new ArrayList<String>();
+            try {
+                for (boolean fastStart : List.of(false, true)) {
+                    results.add(run(iterations, fastStart, consumer));
+                }
+            } finally {
+                dockerCompose(Map.of(), "rm", "-s", "-f", "eventsource");
+            }
+            results.forEach(log::info);
+        }
+    }
+
+    private String run(int iterations, boolean fastStart, Consumer<String, String> consumer) throws IOException, InterruptedException {
+        var mode = fastStart ? "Fast start" : "Without fast start (topics still created after startup)";
+        var environment = Map.of("EVENTSOURCE_FASTSTART", String.valueOf(fastStart));
+
+        List<Long> timesToHealthy = new ArrayList<>();
+        List<Long> timesToFirstRequest = new ArrayList<>();
+        for (int i = 1; i <= iterations; i++) {
+            dockerCompose(environment, "rm", "-s", "-f", "eventsource");
+
+            var start = Instant.now();
+            dockerCompose(environment, "up", "-d", "--no-deps", "eventsource");
+
+            var healthy = awaitHealthy(start);
+            var firstRequest = awaitFirstPublishedRequest(start, consumer);
+            var timeToHealthy = Duration.between(start, healthy).toMillis();
+            var timeToFirstRequest = Duration.between(start, firstRequest).toMillis();
+            log.info(String.format("%s iteration %s: healthy after %s ms, first published /dosomething after %s ms",
+                    mode,
+                    i,
+                    timeToHealthy,
+                    timeToFirstRequest));
+
+            timesToHealthy.add(timeToHealthy);
+            timesToFirstRequest.add(timeToFirstRequest);
+        }
+
+        return String.format("%s: time to healthy (ms) %s; time to first published /dosomething (ms) %s",
+                mode,
+                summary(timesToHealthy),
+                summary(timesToFirstRequest));
+    }
+
+    private Instant awaitHealthy(Instant start) {
+        if (!Services.awaitHealthy(start.plus(MAX_STARTUP_TIME), Duration.ofMillis(50))) {
+            throw new IllegalStateException("Application did not start within " + MAX_STARTUP_TIME);
+        }
+        return Instant.now();
+    }
+
+    // Keeps sending requests until all events of one of them have been read back from the topic. A response alone
+    // is not enough as the events are published after the response has been sent.
+    private Instant awaitFirstPublishedRequest(Instant start, Consumer<String, String> consumer) {
+        var request = HttpRequest.newBuilder()
+                .uri(doSomethingUri)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        Map<String, Integer> eventsByTraceId = new HashMap<>();
+        var stopTime = start.plus(MAX_STARTUP_TIME);
+        while (stopTime.isAfter(Instant.now())) {
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    response.headers().firstValue(TRACE_ID_HEADER)
+                            .ifPresent(traceId -> eventsByTraceId.putIfAbsent(traceId, 0));
+                }
+            } catch (IOException | InterruptedException e) {
+                // not started yet
+            }
+
+            for (var record : consumer.poll(POLLING_TIMEOUT)) {
+                for (String event : EnvelopeUnpacker.unpack(record)) {
+                    var traceId = JsonPath.parse(event).read("$['metadata']['traceId']", String.class);
+                    eventsByTraceId.computeIfPresent(traceId, (key, count) -> count + 1);
+                }
+            }
+            if (eventsByTraceId.values().stream().anyMatch(count -> count >= EVENTS_PER_REQUEST)) {
+                return Instant.now();
+            }
+        }
+        throw new IllegalStateException("No request had its events published within " + MAX_STARTUP_TIME);
+    }
+
+    private Consumer<String, String> createConsumer() {
+        var props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, Services.broker());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "eventsource_startupbenchmark_" + System.currentTimeMillis());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // The topic is created by the application, pick it up as soon as it exists
+        props.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, "false");
+        props.put(ConsumerConfig.METADATA_MAX_AGE_CONFIG, "500");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+
+        var consumer = new KafkaConsumer<String, String>(props);
+        consumer.subscribe(Collections.singletonList(TOPIC));
+        return consumer;
+    }
+
+    // Waits until the broker answers so the first iteration does not include the broker starting up
+    private void awaitBroker(Consumer<String, String> consumer) {
+        log.info("Waiting for broker on host " + Services.broker());
+        var stopTime = Instant.now().plus(MAX_STARTUP_TIME);
+        while (stopTime.isAfter(Instant.now())) {
+            try {
+                consumer.listTopics(Duration.ofSeconds(1));
+                return;
+            } catch (TimeoutException e) {
+                // not started yet
+            }
+        }
+        throw new IllegalStateException("Broker did not start within " + MAX_STARTUP_TIME);
+    }
+
+    private void dockerCompose(Map<String, String> environment, String... args) throws IOException, InterruptedException {
+        var command = new ArrayList<String>();
+        command.add("docker-compose");
+        Collections.addAll(command, args);
+
+        var processBuilder = new ProcessBuilder(command).inheritIO();
+        // The broker has to advertise the address the benchmark connects to
+        processBuilder.environment().put("LISTENER_HOST", Services.broker());
+        processBuilder.environment().putAll(environment);
+        var exitCode = processBuilder.start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Command " + command + " failed with exit code " + exitCode);
+        }
+    }
+
+    private static String summary(List<Long> times) {
+        var sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        return String.format("min %s, median %s, max %s",
+                sorted.get(0),
+                sorted.get(sorted.size() / 2),
+                sorted.get(sorted.size() - 1));
+    }
+}
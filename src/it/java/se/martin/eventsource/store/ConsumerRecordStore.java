@@ -74,7 +74,12 @@ class ConsumerRecordStore implements Runnable {
                                 r.key(),
                                 r.partition(),
                                 r.offset()));
-                store.put(r.key(), new ExpirableString(r.value()));
+                var events = EnvelopeUnpacker.unpack(r);
+                for (int i = 0; i < events.size(); i++) {
+                    // Events unpacked from an envelope share the record key
+                    var key = events.size() == 1 ? r.key() : r.key() + "/" + i;
+                    store.put(key, new ExpirableString(events.get(i)));
+                }
             });
 
             lock.writeLock().unlock();
@@ -0,0 +1,46 @@
+package se.martin.eventsource.store;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Turns a consumed record into the events it contains, as JSON. A record carrying an envelope yields each of the
+// packed events, in sequence order, as if they had been published as separate records.
+// The integration tests read the topic as a black box, the application has its own EnvelopeUnpacker yielding Events.
+public class EnvelopeUnpacker {
+
+    private final static String ENVELOPE_HEADER = "eventsource-envelope";
+
+    private EnvelopeUnpacker() {
+    }
+
+    public static boolean isEnvelope(ConsumerRecord<String, String> record) {
+        return record.headers().lastHeader(ENVELOPE_HEADER) != null;
+    }
+
+    // Returns the events as JSON strings, in the form the EventStore reads them
+    public static List<String> unpack(ConsumerRecord<String, String> record) {
+        if (!isEnvelope(record)) {
+            return Collections.singletonList(record.value());
+        }
+
+        var jsonProvider = Configuration.defaultConfiguration().jsonProvider();
+        return events(record).stream()
+                .map(jsonProvider::toJson)
+                .collect(Collectors.toList());
+    }
+
+    // Returns the events as parsed JSON documents, parsing the record value once whether or not it is an envelope
+    public static List<Object> events(ConsumerRecord<String, String> record) {
+        var document = Configuration.defaultConfiguration().jsonProvider().parse(record.value());
+        if (!isEnvelope(record)) {
+            return Collections.singletonList(document);
+        }
+        return JsonPath.read(document, "$['events']");
+    }
+
+}
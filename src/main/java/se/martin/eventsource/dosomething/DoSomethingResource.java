@@ -2,21 +2,30 @@ package se.martin.eventsource.dosomething;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 import se.martin.eventsource.publish.EventPublisher;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
+@Lazy(false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Slf4j
 public class DoSomethingResource {
 
     @Autowired
     EventPublisher publisher;
 
+    @Value("${eventsource.publish.envelope:false}")
+    boolean envelope;
+
     @PostMapping("/dosomething")
     public ResponseEntity<Transaction> doSomething() {
         var transactionId = UUID.randomUUID();
@@ -24,11 +33,15 @@ public class DoSomethingResource {
         // Do some state changes...
 
         // Publish five events
-        publisher.publish(transactionId, 1);
-        publisher.publish(transactionId, 2);
-        publisher.publish(transactionId, 3);
-        publisher.publish(transactionId, 4);
-        publisher.publish(transactionId, 5);
+        if (envelope) {
+            publisher.publishEnvelope(transactionId, List.of(1, 2, 3, 4, 5));
+        } else {
+            publisher.publish(transactionId, 1);
+            publisher.publish(transactionId, 2);
+            publisher.publish(transactionId, 3);
+            publisher.publish(transactionId, 4);
+            publisher.publish(transactionId, 5);
+        }
 
         // Return a response
         var transaction = new Transaction(transactionId);
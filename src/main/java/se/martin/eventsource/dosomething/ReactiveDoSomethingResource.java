@@ -0,0 +1,48 @@
+package se.martin.eventsource.dosomething;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import se.martin.eventsource.publish.ReactiveEventPublisher;
+
+import java.util.List;
+import java.util.UUID;
+
+// The "do something" endpoint when running on the reactive stack. As with the DoSomethingResource the response is
+// returned once the events have been handed over for publishing, not once they have been published.
+@RestController
+@Lazy(false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveDoSomethingResource {
+
+    @Autowired
+    ReactiveEventPublisher publisher;
+
+    @Value("${eventsource.publish.envelope:false}")
+    boolean envelope;
+
+    @PostMapping("/dosomething")
+    public Mono<ResponseEntity<Transaction>> doSomething() {
+        var transactionId = UUID.randomUUID();
+
+        // Do some state changes...
+
+        // Publish five events
+        var sequenceIds = List.of(1, 2, 3, 4, 5);
+        var published = envelope
+                ? publisher.publishEnvelope(transactionId, sequenceIds)
+                : publisher.publish(transactionId, sequenceIds);
+
+        // Return a response
+        var transaction = new Transaction(transactionId);
+        return published.thenReturn(new ResponseEntity<Transaction>(transaction, HttpStatus.OK));
+    }
+}
@@ -3,14 +3,17 @@ package se.martin.eventsource.noise;
 import brave.Tracer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import se.martin.eventsource.publish.EventPublisher;
+import se.martin.eventsource.publish.TopicInitializer;
 
 import java.util.UUID;
 
 @Slf4j
 @Component
+@Lazy(false)
 public class NoiseMaker {
 
     @Autowired
@@ -19,8 +22,15 @@ public class NoiseMaker {
     @Autowired
     EventPublisher publisher;
 
+    @Autowired
+    TopicInitializer topics;
+
     @Scheduled(fixedRate = 3000l)
     public void makeSomeNoise() {
+        if (!topics.isReady()) {
+            log.debug("Topics not created yet, no noise");
+            return;
+        }
         log.debug("Making some noise...");
         tracer.newTrace();
         publisher.publish(UUID.randomUUID(), -1);
@@ -0,0 +1,30 @@
+package se.martin.eventsource.publish;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.Collections;
+import java.util.List;
+
+// Turns a consumed record into the events it contains. A record carrying an envelope yields each of the packed
+// events, in sequence order, as if they had been published as separate records.
+public class EnvelopeUnpacker {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private EnvelopeUnpacker() {
+    }
+
+    public static boolean isEnvelope(ConsumerRecord<?, ?> record) {
+        return record.headers().lastHeader(EventPublisher.ENVELOPE_HEADER) != null;
+    }
+
+    public static List<Event> unpack(ConsumerRecord<String, String> record) throws JsonProcessingException {
+        if (!isEnvelope(record)) {
+            return Collections.singletonList(OBJECT_MAPPER.readValue(record.value(), Event.class));
+        }
+        return OBJECT_MAPPER.readValue(record.value(), EventEnvelope.class).getEvents();
+    }
+
+}
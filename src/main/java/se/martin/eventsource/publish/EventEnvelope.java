@@ -0,0 +1,24 @@
+package se.martin.eventsource.publish;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.UUID;
+
+// Carries all events of one transaction, in sequence order, in a single record
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class EventEnvelope {
+
+    private Metadata metadata;
+
+    private UUID transactionId;
+
+    private List<Event> events;
+
+}
@@ -6,31 +6,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.concurrent.ListenableFuture;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 @Service
+@Lazy(false)
 @Slf4j
 public class EventPublisher {
 
     private static final String TOPIC = "eventsource";
 
+    // Set on records containing an EventEnvelope rather than a single Event
+    public static final String ENVELOPE_HEADER = "eventsource-envelope";
+
     @Autowired
     KafkaTemplate template;
 
     @Autowired
     Tracer tracer;
 
+    @Autowired
+    TopicInitializer topics;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private final ThreadLocalRandom random = ThreadLocalRandom.current();
@@ -45,31 +56,11 @@ public class EventPublisher {
                         sequenceId)
         );
 
-        var metadata = new Metadata(tracer.currentSpan().context().traceIdString());
-        char[] padding = new char[1024 * 10];
-        Arrays.fill(padding, 'a');
-        var event = new Event(metadata, transcationId, sequenceId, new String(padding));
+        var metadata = currentMetadata();
+        var event = createEvent(metadata, transcationId, sequenceId);
         try {
             String message = objectMapper.writeValueAsString(event);
-            String key = UUID.randomUUID().toString();
-            Integer partition = random.nextInt(10);
-
-            log.debug(
-                    String.format("Publishing event with key %s on topic %s parition %s",
-                            key,
-                            TOPIC,
-                            partition)
-            );
-            
-            var record = new ProducerRecord<>(TOPIC, partition, key, message);
-            ListenableFuture<SendResult> future = template.send(record);
-            SendResult result = future.get(10, TimeUnit.SECONDS);
-
-            log.debug(String.format("Message published to topic %s partition %s with offset %s",
-                    TOPIC,
-                    partition,
-                    result.getRecordMetadata().offset())
-            );
+            send(message, false);
         } catch (JsonProcessingException e) {
             String msg = String.format("Unable to serialize message %s", event);
             log.warn(msg, e);
@@ -80,4 +71,72 @@ public class EventPublisher {
             // Swallow the exception
         }
     }
+
+    // Publishes all events of a transaction, in the given sequence order, as a single record
+    @Async
+    public void publishEnvelope(UUID transcationId, List<Integer> sequenceIds) {
+        var currentThread = Thread.currentThread();
+        log.info(
+                String.format("%s: Publishing transaction %s with sequences %s",
+                        currentThread.getName(),
+                        transcationId,
+                        sequenceIds)
+        );
+
+        var metadata = currentMetadata();
+        var events = sequenceIds.stream()
+                .map(sequenceId -> createEvent(metadata, transcationId, sequenceId))
+                .collect(Collectors.toList());
+        var envelope = new EventEnvelope(metadata, transcationId, events);
+        try {
+            String message = objectMapper.writeValueAsString(envelope);
+            send(message, true);
+        } catch (JsonProcessingException e) {
+            String msg = String.format("Unable to serialize message %s", envelope);
+            log.warn(msg, e);
+            // Swallow the exception
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            String msg = String.format("Unable to publish record %s", envelope);
+            log.warn(msg, e);
+            // Swallow the exception
+        }
+    }
+
+    private Metadata currentMetadata() {
+        return new Metadata(tracer.currentSpan().context().traceIdString());
+    }
+
+    static Event createEvent(Metadata metadata, UUID transcationId, Integer sequenceId) {
+        char[] padding = new char[1024 * 10];
+        Arrays.fill(padding, 'a');
+        return new Event(metadata, transcationId, sequenceId, new String(padding));
+    }
+
+    private void send(String message, boolean envelope) throws InterruptedException, ExecutionException, TimeoutException {
+        // Wait for the topic to be created with the right configuration
+        topics.ready().get(10, TimeUnit.SECONDS);
+
+        String key = UUID.randomUUID().toString();
+        Integer partition = random.nextInt(10);
+
+        log.debug(
+                String.format("Publishing event with key %s on topic %s parition %s",
+                        key,
+                        TOPIC,
+                        partition)
+        );
+
+        var record = new ProducerRecord<>(TOPIC, partition, key, message);
+        if (envelope) {
+            record.headers().add(ENVELOPE_HEADER, "true".getBytes(StandardCharsets.UTF_8));
+        }
+        ListenableFuture<SendResult> future = template.send(record);
+        SendResult result = future.get(10, TimeUnit.SECONDS);
+
+        log.debug(String.format("Message published to topic %s partition %s with offset %s",
+                TOPIC,
+                partition,
+                result.getRecordMetadata().offset())
+        );
+    }
 }
@@ -4,6 +4,8 @@ import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -11,6 +13,8 @@ import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,7 +26,12 @@ public class KafkaConfig {
     public KafkaAdmin admin() {
         Map<String, Object> configs = new HashMap<>();
         configs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,  "broker:9092");
-        return new KafkaAdmin(configs);
+        var admin = new KafkaAdmin(configs);
+        // Topics are created by the TopicInitializer once the application is ready
+        admin.setAutoCreate(false);
+        // Fail fast while the broker is unavailable, the TopicInitializer retries
+        admin.setOperationTimeout(5);
+        return admin;
     }
 
     @Bean
@@ -43,6 +52,17 @@ public class KafkaConfig {
         return new DefaultKafkaProducerFactory<>(producerConfigs());
     }
 
+    // Non-blocking sender used by the ReactiveEventPublisher. The publisher sends all records through one subscription,
+    // so maxInFlight bounds the records in flight across all requests and a failed record must not end it.
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public KafkaSender<String, String> kafkaSender(@Value("${eventsource.publish.max-in-flight}") int maxInFlight) {
+        SenderOptions<String, String> options = SenderOptions.<String, String>create(producerConfigs())
+                .maxInFlight(maxInFlight)
+                .stopOnError(false);
+        return KafkaSender.create(options);
+    }
+
     @Bean
     public Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
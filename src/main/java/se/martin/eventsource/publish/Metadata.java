@@ -2,9 +2,11 @@ package se.martin.eventsource.publish;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @AllArgsConstructor
+@NoArgsConstructor
 @Getter
 @ToString
 public class Metadata {
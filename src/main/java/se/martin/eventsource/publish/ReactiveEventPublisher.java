@@ -0,0 +1,243 @@
+package se.martin.eventsource.publish;
+
+import brave.Tracing;
+import brave.propagation.TraceContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.UnicastProcessor;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Publishes the same records as the EventPublisher but on a non-blocking KafkaSender. The trace context is taken
+// from the Reactor context populated by Sleuth rather than from the current thread.
+// As on the servlet stack the caller does not wait for the records to be published. Records from all requests are
+// queued and sent by a single sender subscription, so eventsource.publish.max-in-flight bounds the records in flight
+// across all requests. Sending starts once the topics have been created.
+// Records wait in memory until they are sent. eventsource.publish.max-pending bounds the records queued or in flight,
+// requests that would exceed it are rejected with 503 Service Unavailable.
+// If the sender subscription ends, requests are rejected in the same way and the health indicator reports DOWN.
+// On shutdown the records already queued are sent before the producer is closed.
+@Service
+@Lazy(false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveEventPublisher {
+
+    private static final String TOPIC = "eventsource";
+
+    private static final long DRAIN_TIMEOUT = 10l;
+
+    @Autowired
+    KafkaSender<String, String> sender;
+
+    @Autowired
+    Tracing tracing;
+
+    @Autowired
+    TopicInitializer topics;
+
+    @Value("${eventsource.publish.max-pending}")
+    int maxPending;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final UnicastProcessor<SenderRecord<String, String, UUID>> outbound = UnicastProcessor.create();
+
+    private final FluxSink<SenderRecord<String, String, UUID>> sink = outbound.sink();
+
+    // Records queued or in flight
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private Disposable subscription;
+
+    @PostConstruct
+    void start() {
+        subscription = Mono.fromFuture(topics.ready())
+                .thenMany(sender.send(outbound))
+                .doFinally(signal -> stopped.countDown())
+                .subscribe(this::published, e -> log.error("Publishing stopped", e));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!topics.isReady()) {
+            // Nothing has been sent, and nothing can be until the topics exist
+            subscription.dispose();
+            return;
+        }
+
+        // Let the sender finish the queued and in-flight records before the producer is closed
+        sink.complete();
+        try {
+            if (!stopped.await(DRAIN_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn(String.format("%s records not published within %s seconds of shutdown", pending.get(), DRAIN_TIMEOUT));
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for records to be published", e);
+        }
+        subscription.dispose();
+    }
+
+    // False once the sender subscription has ended, after which no more records are published
+    public boolean isRunning() {
+        return stopped.getCount() > 0;
+    }
+
+    // Queues each event as a record of its own. Completes once the records have been queued, or with a
+    // ResponseStatusException if too many records are pending or publishing has stopped.
+    public Mono<Void> publish(UUID transcationId, List<Integer> sequenceIds) {
+        return traceContext()
+                .flatMapMany(traceContext -> {
+                    log.info(
+                            String.format("Publishing transaction %s and sequences %s",
+                                    transcationId,
+                                    sequenceIds)
+                    );
+
+                    var metadata = new Metadata(traceContext.traceIdString());
+                    return Flux.fromIterable(sequenceIds)
+                            .map(sequenceId -> EventPublisher.createEvent(metadata, transcationId, sequenceId))
+                            .map(event -> createRecord(traceContext, transcationId, event, false));
+                })
+                .as(records -> queue(records, sequenceIds.size()));
+    }
+
+    // Queues all events of a transaction, in the given sequence order, as a single record. Completes once the record
+    // has been queued, or with a ResponseStatusException if too many records are pending or publishing has stopped.
+    public Mono<Void> publishEnvelope(UUID transcationId, List<Integer> sequenceIds) {
+        return traceContext()
+                .flatMapMany(traceContext -> {
+                    log.info(
+                            String.format("Publishing transaction %s with sequences %s",
+                                    transcationId,
+                                    sequenceIds)
+                    );
+
+                    var metadata = new Metadata(traceContext.traceIdString());
+                    var events = sequenceIds.stream()
+                            .map(sequenceId -> EventPublisher.createEvent(metadata, transcationId, sequenceId))
+                            .collect(Collectors.toList());
+                    var envelope = new EventEnvelope(metadata, transcationId, events);
+                    return Mono.fromCallable(() -> createRecord(traceContext, transcationId, envelope, true));
+                })
+                .as(records -> queue(records, 1));
+    }
+
+    private Mono<TraceContext> traceContext() {
+        return Mono.subscriberContext()
+                .flatMap(context -> Mono.justOrEmpty(context.<TraceContext>getOrEmpty(TraceContext.class)))
+                .switchIfEmpty(Mono.error(new IllegalStateException("No trace context available")));
+    }
+
+    private SenderRecord<String, String, UUID> createRecord(TraceContext traceContext, UUID transactionId, Object payload, boolean envelope) {
+        String message;
+        try {
+            message = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(String.format("Unable to serialize message %s", payload), e);
+        }
+        String key = UUID.randomUUID().toString();
+        Integer partition = ThreadLocalRandom.current().nextInt(10);
+
+        log.debug(
+                String.format("Publishing event with key %s on topic %s parition %s",
+                        key,
+                        TOPIC,
+                        partition)
+        );
+
+        var record = new ProducerRecord<>(TOPIC, partition, key, message);
+        if (envelope) {
+            record.headers().add(EventPublisher.ENVELOPE_HEADER, "true".getBytes(StandardCharsets.UTF_8));
+        }
+        // Propagate the trace in the record headers as Sleuth does for the KafkaTemplate
+        tracing.propagation()
+                .<Headers>injector((headers, name, value) -> headers.remove(name).add(name, value.getBytes(StandardCharsets.UTF_8)))
+                .inject(traceContext, record.headers());
+
+        return SenderRecord.create(record, transactionId);
+    }
+
+    private Mono<Void> queue(Flux<SenderRecord<String, String, UUID>> records, int count) {
+        return Mono.defer(() -> {
+            if (!isRunning()) {
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Publishing has stopped"));
+            }
+            if (!reserve(count)) {
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many records pending"));
+            }
+
+            var queued = new AtomicInteger();
+            return records
+                    .doOnNext(record -> {
+                        sink.next(record);
+                        queued.incrementAndGet();
+                    })
+                    .then()
+                    .onErrorResume(e -> {
+                        // Give back what was reserved for the records that were never queued
+                        pending.addAndGet(queued.get() - count);
+                        log.warn("Unable to publish records", e);
+                        // Swallow the exception
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private boolean reserve(int count) {
+        while (true) {
+            int current = pending.get();
+            if (current + count > maxPending) {
+                return false;
+            }
+            if (pending.compareAndSet(current, current + count)) {
+                return true;
+            }
+        }
+    }
+
+    private void published(SenderResult<UUID> result) {
+        pending.decrementAndGet();
+
+        if (result.exception() != null) {
+            String msg = String.format("Unable to publish record for transaction %s", result.correlationMetadata());
+            log.warn(msg, result.exception());
+            // Swallow the exception
+            return;
+        }
+
+        log.debug(String.format("Message published to topic %s partition %s with offset %s",
+                TOPIC,
+                result.recordMetadata().partition(),
+                result.recordMetadata().offset())
+        );
+    }
+}
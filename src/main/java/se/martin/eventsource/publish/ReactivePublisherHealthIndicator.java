@@ -0,0 +1,27 @@
+package se.martin.eventsource.publish;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+// Reports the application as DOWN once the ReactiveEventPublisher has stopped sending records, as every request
+// would then be rejected.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePublisherHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    ReactiveEventPublisher publisher;
+
+    @Override
+    public Health health() {
+        if (publisher.isRunning()) {
+            return Health.up().build();
+        }
+        return Health.down()
+                .withDetail("reason", "Publishing has stopped")
+                .build();
+    }
+}
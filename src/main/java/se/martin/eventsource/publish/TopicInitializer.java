@@ -0,0 +1,52 @@
+package se.martin.eventsource.publish;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+// Creates the topics declared as NewTopic beans once the application is ready. KafkaAdmin would otherwise do this
+// during context refresh and block the web server from starting until the broker has answered.
+// Creation is retried until the broker is available. Publishing has to wait for ready() to complete, as a record
+// sent before then would have the broker auto-create the topic without the configured partitions and compaction.
+@Slf4j
+@Component
+public class TopicInitializer {
+
+    private static final long RETRY_INTERVAL = 1000l;
+
+    @Autowired
+    KafkaAdmin admin;
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createTopics() {
+        log.info("Creating topics...");
+        while (!admin.initialize()) {
+            log.warn("Unable to create topics, the broker is not available. Retrying...");
+            try {
+                Thread.sleep(RETRY_INTERVAL);
+            } catch (InterruptedException e) {
+                ready.completeExceptionally(e);
+                return;
+            }
+        }
+        log.info("Topics created");
+        ready.complete(null);
+    }
+
+    public CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+}
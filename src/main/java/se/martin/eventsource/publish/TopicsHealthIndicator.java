@@ -0,0 +1,25 @@
+package se.martin.eventsource.publish;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Reports the application as DOWN until the TopicInitializer has created the topics. The web server is started
+// before then, but events can not be published until the topics exist.
+@Component
+public class TopicsHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    TopicInitializer topics;
+
+    @Override
+    public Health health() {
+        if (topics.isReady()) {
+            return Health.up().build();
+        }
+        return Health.down()
+                .withDetail("reason", "Topics not created yet")
+                .build();
+    }
+}
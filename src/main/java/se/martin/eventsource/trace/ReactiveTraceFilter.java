@@ -0,0 +1,30 @@
+package se.martin.eventsource.trace;
+
+import brave.propagation.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of the TraceFilter. Sleuth keeps the trace context in the Reactor context of the request.
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTraceFilter implements WebFilter {
+
+    private static final String TRACE_ID_HEADER = "x-b3-traceid";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return Mono.subscriberContext()
+                .doOnNext(context -> context.<TraceContext>getOrEmpty(TraceContext.class).ifPresent(traceContext -> {
+                    var traceId = traceContext.traceIdString();
+                    log.debug("Setting " + TRACE_ID_HEADER + " to " + traceId);
+                    exchange.getResponse().getHeaders().set(TRACE_ID_HEADER, traceId);
+                }))
+                .then(chain.filter(exchange));
+    }
+}
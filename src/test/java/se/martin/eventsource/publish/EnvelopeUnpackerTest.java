@@ -0,0 +1,75 @@
+package se.martin.eventsource.publish;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EnvelopeUnpackerTest {
+
+    private static final String TOPIC = "eventsource";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testThatEnvelopeIsUnpackedInSequenceOrder() throws JsonProcessingException {
+
+        // Given: an envelope record containing five events
+        var metadata = new Metadata("4bf92f3577b34da6");
+        var transactionId = UUID.randomUUID();
+        var events = List.of(1, 2, 3, 4, 5).stream()
+                .map(sequenceId -> new Event(metadata, transactionId, sequenceId, "padding"))
+                .collect(Collectors.toList());
+        var envelope = new EventEnvelope(metadata, transactionId, events);
+        var record = new ConsumerRecord<>(TOPIC, 0, 0l, "key", objectMapper.writeValueAsString(envelope));
+        record.headers().add(EventPublisher.ENVELOPE_HEADER, "true".getBytes(StandardCharsets.UTF_8));
+
+        // When the record is unpacked
+        var unpacked = EnvelopeUnpacker.unpack(record);
+
+        // Then it is recognised as an envelope
+        assertTrue(EnvelopeUnpacker.isEnvelope(record));
+
+        // And each event is identical to the event published as a record of its own, in sequence order
+        assertEquals(events.size(), unpacked.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(objectMapper.writeValueAsString(events.get(i)), objectMapper.writeValueAsString(unpacked.get(i)));
+        }
+        var sequenceIds = unpacked.stream()
+                .map(Event::getSequenceId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(1, 2, 3, 4, 5), sequenceIds);
+    }
+
+    @Test
+    public void testThatSingleEventIsReturnedUnchanged() throws JsonProcessingException {
+
+        // Given: a record containing a single event
+        var event = new Event(new Metadata("4bf92f3577b34da6"), UUID.randomUUID(), 1, "padding");
+        var record = new ConsumerRecord<>(TOPIC, 0, 0l, "key", objectMapper.writeValueAsString(event));
+
+        // When the record is unpacked
+        var unpacked = EnvelopeUnpacker.unpack(record);
+
+        // Then it is not an envelope and the event is returned as is
+        assertFalse(EnvelopeUnpacker.isEnvelope(record));
+        assertEquals(1, unpacked.size());
+        assertEquals(objectMapper.writeValueAsString(event), objectMapper.writeValueAsString(unpacked.get(0)));
+    }
+
+    @Test
+    public void testThatEnvelopeHeaderNameIsUnchanged() {
+        // The integration tests read the records as a black box and look for the header by this name
+        assertEquals("eventsource-envelope", EventPublisher.ENVELOPE_HEADER);
+    }
+
+}